@@ -17,7 +17,10 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.lang.reflect.*;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -31,6 +34,10 @@ public class ClientFactory {
     private boolean allowResponseLog;
     private Decoder decoder;
     private Encoder encoder;
+    private EncodeBufferPool bufferPool;
+    private Client client;
+    private Map<String, RateLimiter> rateLimiters;
+    private ThreadLocal<List<RateLimiter>> activeRateLimiters;
 
     public static class Builder {
         private Integer connectTimeoutMillis;
@@ -38,6 +45,9 @@ public class ClientFactory {
         private String defaultBaseUrl;
         private boolean allowRequestLog;
         private boolean allowResponseLog;
+        private EncodeBufferPool bufferPool;
+        private Client client;
+        private Map<String, RateLimiter> rateLimiters;
 
         public static Builder getInstance() {
             return new Builder();
@@ -47,6 +57,7 @@ public class ClientFactory {
             this.connectTimeoutMillis = 10 * 1000;
             this.readTimeoutMillis = 60 * 1000;
             this.defaultBaseUrl = System.getProperty("service.url");
+            this.rateLimiters = new HashMap<>();
         }
 
         public Builder connectTimeoutMillis(int connectTimeoutMillis) {
@@ -74,16 +85,55 @@ public class ClientFactory {
             return this;
         }
 
+        public Builder bufferPool(EncodeBufferPool bufferPool) {
+            this.bufferPool = bufferPool;
+            return this;
+        }
+
+        /**
+         * Sends requests through {@code client} instead of {@link java.net.HttpURLConnection}. Pooled bodies
+         * are then copied into the request rather than written from their buffer.
+         */
+        public Builder client(Client client) {
+            this.client = client;
+            return this;
+        }
+
+        public Builder rateLimiter(Class<?> apiType, RateLimiter rateLimiter) {
+            rateLimiters.put(apiType.getName(), rateLimiter);
+            return this;
+        }
+
+        /**
+         * Limits calls to the named method of {@code apiType}, including methods it inherits; all overloads
+         * of the name share the limiter.
+         */
+        public Builder rateLimiter(Class<?> apiType, String methodName, RateLimiter rateLimiter) {
+            boolean found = false;
+            for (Method method : apiType.getMethods()) {
+                found |= method.getName().equals(methodName);
+            }
+            if (!found) {
+                throw new IllegalArgumentException("[apiType:" + apiType.getName() + ",methodName:" + methodName + "] no such method");
+            }
+            rateLimiters.put(apiType.getName() + "#" + methodName, rateLimiter);
+            return this;
+        }
+
         public ClientFactory build() {
-            return new ClientFactory(connectTimeoutMillis, readTimeoutMillis, defaultBaseUrl, allowRequestLog, allowResponseLog);
+            return new ClientFactory(connectTimeoutMillis, readTimeoutMillis, defaultBaseUrl, allowRequestLog, allowResponseLog, bufferPool,
+                    client, rateLimiters);
         }
     }
 
     public class ClientBuilder extends Feign.Builder {
+        private Client client = ClientFactory.this.client;
+        private Retryer retryer;
+
         @Override
         public <T> T target(Target<T> target) {
-            init();
-            return (T) createProxyClient(super.target(target));
+            init(target.type());
+            return (T) createProxyClient(super.target(target), target.type());
         }
 
         @Override
@@ -91,11 +141,10 @@ public class ClientFactory {
             if (url == null) {
                 url = defaultBaseUrl;
             }
-            init();
-            return (T) createProxyClient(super.target(apiType, url));
+            return target(new Target.HardCodedTarget<>(apiType, url));
         }
 
-        private void init() {
+        private void init(Class<?> apiType) {
             if (connectTimeoutMillis != null || readTimeoutMillis != null) {
                 Request.Options options = new Request.Options();
                 super.options(new Request.Options(connectTimeoutMillis == null ? options.connectTimeoutMillis() : connectTimeoutMillis,
@@ -108,6 +157,28 @@ public class ClientFactory {
             }
 
             super.errorDecoder(createErrorDecode());
+            super.client(createHttpClient(new PooledBodyClient(client)));
+
+            // a retry would reach the upstream again without taking a permit
+            if (retryer == null && hasRateLimiters(apiType)) {
+                super.retryer(Retryer.NEVER_RETRY);
+            }
+        }
+
+        /**
+         * Retries do not take rate limit permits. Clients of rate limited interfaces do not retry unless
+         * a retryer is set here.
+         */
+        @Override
+        public Feign.Builder retryer(Retryer retryer) {
+            this.retryer = retryer;
+            return super.retryer(retryer);
+        }
+
+        @Override
+        public Feign.Builder client(Client client) {
+            this.client = client;
+            return this;
         }
 
         @Override
@@ -120,12 +191,17 @@ public class ClientFactory {
         return new Builder();
     }
 
-    private ClientFactory(int connectTimeoutMillis, int readTimeoutMillis, String defaultBaseUrl, boolean allowRequestLog, boolean allowResponseLog) {
+    private ClientFactory(int connectTimeoutMillis, int readTimeoutMillis, String defaultBaseUrl, boolean allowRequestLog, boolean allowResponseLog,
+                          EncodeBufferPool bufferPool, Client client, Map<String, RateLimiter> rateLimiters) {
         this.connectTimeoutMillis = connectTimeoutMillis;
         this.readTimeoutMillis = readTimeoutMillis;
         this.defaultBaseUrl = defaultBaseUrl;
         this.allowRequestLog = allowRequestLog;
         this.allowResponseLog = allowResponseLog;
+        this.bufferPool = bufferPool;
+        this.client = client;
+        this.rateLimiters = new HashMap<>(rateLimiters);
+        this.activeRateLimiters = new ThreadLocal<>();
         this.clientMap = new ConcurrentHashMap<>();
     }
 
@@ -137,6 +213,17 @@ public class ClientFactory {
         return createClient(tClass, baseUrl, new GsonEncoder(), new GsonDecoder());
     }
 
+    public <T> T createPooledJsonClient(Class<T> tClass, String baseUrl) {
+        return createClient(tClass, baseUrl, new PooledGsonEncoder(bufferPool()), new GsonDecoder());
+    }
+
+    private synchronized EncodeBufferPool bufferPool() {
+        if (bufferPool == null) {
+            bufferPool = new EncodeBufferPool(64, 4 * 1024, 256 * 1024);
+        }
+        return bufferPool;
+    }
+
     public <T> T createXmlClient(Class<T> tClass, String baseUrl) {
         JAXBContextFactory jaxbFactory = new JAXBContextFactory.Builder()
                 .withMarshallerJAXBEncoding("UTF-8")
@@ -163,16 +250,11 @@ public class ClientFactory {
                 .encoder(encoder)
                 .decoder(decoder)
                 .target(tClass, baseUrl);
-<<<<<<< HEAD
-=======
-        client= (T) createProxyClient(client);
->>>>>>> c92039b79076984582e96d289e89f2895df38e65
         clientMap.put(key, client);
 
         return client;
     }
 
-<<<<<<< HEAD
     private ErrorDecoder createErrorDecode() {
         return new ErrorDecoder() {
             @Override
@@ -226,26 +308,55 @@ public class ClientFactory {
         };
     }
 
-    private Object createProxyClient(Object client) {
+    // sees every response, including those of void methods, which never reach the decoder
+    private Client createHttpClient(Client client) {
+        return new Client() {
+            @Override
+            public Response execute(Request request, Request.Options options) throws IOException {
+                Response response = client.execute(request, options);
+                observeRateLimit(response);
+                return response;
+            }
+        };
+    }
+
+    private Object createProxyClient(Object client, Class<?> apiType) {
         return Proxy.newProxyInstance(getClass().getClassLoader(), client.getClass().getInterfaces(),
-=======
-    private <T extends ApiClient> ApiClient createProxyClient(T client) {
-        return (ApiClient) Proxy.newProxyInstance(getClass().getClassLoader(), client.getClass().getInterfaces(),
->>>>>>> c92039b79076984582e96d289e89f2895df38e65
                 new InvocationHandler() {
 
                     @Override
                     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        List<RateLimiter> limiters = rateLimitersOf(apiType, method);
+                        if (!acquireRateLimit(limiters, apiType, method)) {
+                            return handleThrottled(method);
+                        }
+
                         Object result = null;
                         Throwable throwable = null;
+                        activeRateLimiters.set(limiters);
+                        EncodeBufferScope scope = EncodeBufferScope.open();
                         try {
                             result = method.invoke(client, args);
                         } catch (InvocationTargetException e) {
                             throwable = e.getTargetException();
+                        } finally {
+                            scope.close();
+                            activeRateLimiters.remove();
                         }
                         return handleResult(result, method, throwable);
                     }
 
+                    private Object handleThrottled(Method method) throws Exception {
+                        Class returnType = method.getReturnType();
+                        if (BaseResponse.class.isAssignableFrom(returnType)) {
+                            BaseResponse result = (BaseResponse) returnType.newInstance();
+                            result.setStatus(429);
+                            result.setMessage("Too Many Requests (throttled locally)");
+                            return result;
+                        }
+                        throw new RateLimitException(Feign.configKey(apiType, method));
+                    }
+
                     private Object handleResult(Object result, Method method, Throwable throwable) throws Throwable {
                         Class returnType = method.getReturnType();
                         if (throwable != null) {
@@ -270,6 +381,54 @@ public class ClientFactory {
                 });
     }
 
+    private List<RateLimiter> rateLimitersOf(Class<?> apiType, Method method) {
+        List<RateLimiter> limiters = new ArrayList<>(2);
+        // toString, hashCode and equals never reach the upstream
+        if (rateLimiters.isEmpty() || method.getDeclaringClass() == Object.class) {
+            return limiters;
+        }
+        RateLimiter limiter = rateLimiters.get(apiType.getName());
+        if (limiter != null) {
+            limiters.add(limiter);
+        }
+        limiter = rateLimiters.get(apiType.getName() + "#" + method.getName());
+        if (limiter != null) {
+            limiters.add(limiter);
+        }
+        return limiters;
+    }
+
+    private boolean hasRateLimiters(Class<?> apiType) {
+        for (String key : rateLimiters.keySet()) {
+            if (key.equals(apiType.getName()) || key.startsWith(apiType.getName() + "#")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean acquireRateLimit(List<RateLimiter> limiters, Class<?> apiType, Method method) {
+        if (limiters.isEmpty()) {
+            return true;
+        }
+        try {
+            return RateLimiter.acquire(limiters);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RateLimitException(Feign.configKey(apiType, method), e);
+        }
+    }
+
+    private void observeRateLimit(Response response) {
+        List<RateLimiter> limiters = activeRateLimiters.get();
+        if (limiters == null) {
+            return;
+        }
+        for (RateLimiter limiter : limiters) {
+            limiter.observe(response.headers());
+        }
+    }
+
     private Type getActualTypeArgument(Type type, int index) {
         if (type instanceof ParameterizedType) {
             Type[] types = ((ParameterizedType) type).getActualTypeArguments();
@@ -329,8 +488,12 @@ public class ClientFactory {
         if (headers != null && !headers.isEmpty()) {
             log = String.format("%s\nheaders: \n%s", log, headersToString(headers));
         }
+        Charset charset = request.charset() == null ? Charset.forName("utf-8") : request.charset();
         if (reqBody != null) {
-            log = String.format("%s\nbody: \n%s", log, new String(reqBody));
+            log = String.format("%s\nbody: \n%s", log, new String(reqBody, charset));
+        } else if (EncodeBufferScope.pendingBody() != null) {
+            // a pooled body was sent straight from its buffer, which stays with the call until it ends
+            log = String.format("%s\nbody: \n%s", log, EncodeBufferScope.pendingBody().toString(charset));
         }
         return log;
     }
@@ -350,9 +513,17 @@ public class ClientFactory {
     private void httpLog(Response response, Object body, boolean onError) {
         Request request = response.request();
         if (onError) {
-            logger.error(String.format("\n%s\n\n%s",
+            String log = String.format("\n%s\n\n%s",
                     buildRequestLog(request, request.headers(), request.body()),
-                    buildResponseLog(response, response.headers(), body.toString())));
+                    buildResponseLog(response, response.headers(), body.toString()));
+            if (response.status() == 429) {
+                logger.warn(log);
+            } else {
+                logger.error(log);
+            }
+            return;
+        }
+        if (!logger.isInfoEnabled()) {
             return;
         }
 
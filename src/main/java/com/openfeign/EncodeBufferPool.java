@@ -0,0 +1,199 @@
+package com.openfeign;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of reusable byte buffers that request bodies are encoded into.
+ * Each buffer carries its own utf-8 writer that encodes chars straight into the
+ * buffer's array, so encoding allocates nothing per call. Buffers that grew beyond
+ * {@code maxRetainedBytes} are dropped on release so a single large body does
+ * not pin memory for the lifetime of the pool. Releasing a buffer that is already
+ * released is ignored, so it can never be handed out twice.
+ */
+public class EncodeBufferPool {
+    private final ConcurrentLinkedQueue<Buffer> buffers;
+    private final AtomicInteger pooledCount;
+    private final int maxPooledBuffers;
+    private final int initialCapacity;
+    private final int maxRetainedBytes;
+
+    public static class Buffer extends ByteArrayOutputStream {
+        private final Utf8Writer writer;
+        private final AtomicBoolean released;
+        private char highSurrogate;
+
+        private Buffer(int initialCapacity) {
+            super(initialCapacity);
+            this.writer = new Utf8Writer();
+            this.released = new AtomicBoolean();
+        }
+
+        /**
+         * Utf-8 writer onto this buffer. It does not buffer, but a dangling high surrogate is only
+         * written out (as {@code '?'}) on flush.
+         */
+        public Writer writer() {
+            return writer;
+        }
+
+        public int capacity() {
+            return buf.length;
+        }
+
+        public synchronized String toString(Charset charset) {
+            return new String(buf, 0, count, charset);
+        }
+
+        @Override
+        public synchronized void reset() {
+            super.reset();
+            highSurrogate = 0;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (count + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, count + extra));
+            }
+        }
+
+        // works on locals rather than the inherited fields so the loop stays tight; each char takes
+        // at most 3 bytes, plus one for a high surrogate left pending by the previous write
+        private void encode(CharSequence str, char[] chars, int off, int len) {
+            ensureCapacity(len * 3 + 1);
+            byte[] bytes = buf;
+            int position = count;
+            int end = off + len;
+            int i = off;
+            char high = highSurrogate;
+            if (high == 0) {
+                // plain ascii runs are the common case for json bodies
+                if (str == null) {
+                    while (i < end && chars[i] < 0x80) {
+                        bytes[position++] = (byte) chars[i++];
+                    }
+                } else {
+                    while (i < end && str.charAt(i) < 0x80) {
+                        bytes[position++] = (byte) str.charAt(i++);
+                    }
+                }
+            }
+            while (i < end) {
+                char c = str == null ? chars[i] : str.charAt(i);
+                i++;
+                if (high != 0) {
+                    if (Character.isLowSurrogate(c)) {
+                        int codePoint = Character.toCodePoint(high, c);
+                        high = 0;
+                        bytes[position++] = (byte) (0xf0 | (codePoint >> 18));
+                        bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                        bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                        bytes[position++] = (byte) (0x80 | (codePoint & 0x3f));
+                        continue;
+                    }
+                    high = 0;
+                    bytes[position++] = '?';
+                }
+                if (c < 0x80) {
+                    bytes[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[position++] = (byte) (0xc0 | (c >> 6));
+                    bytes[position++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c)) {
+                    high = c;
+                } else if (Character.isLowSurrogate(c)) {
+                    bytes[position++] = '?';
+                } else {
+                    bytes[position++] = (byte) (0xe0 | (c >> 12));
+                    bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    bytes[position++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            highSurrogate = high;
+            count = position;
+        }
+
+        private void flushSurrogate() {
+            if (highSurrogate != 0) {
+                highSurrogate = 0;
+                ensureCapacity(1);
+                buf[count++] = '?';
+            }
+        }
+
+        private class Utf8Writer extends Writer {
+            @Override
+            public void write(int c) {
+                if (c < 0x80 && highSurrogate == 0) {
+                    ensureCapacity(1);
+                    buf[count++] = (byte) c;
+                } else {
+                    encode(String.valueOf((char) c), null, 0, 1);
+                }
+            }
+
+            @Override
+            public void write(char[] chars, int off, int len) {
+                encode(null, chars, off, len);
+            }
+
+            @Override
+            public void write(String str, int off, int len) {
+                encode(str, null, off, len);
+            }
+
+            @Override
+            public void flush() {
+                flushSurrogate();
+            }
+
+            @Override
+            public void close() {
+                flushSurrogate();
+            }
+        }
+    }
+
+    public EncodeBufferPool(int maxPooledBuffers, int initialCapacity, int maxRetainedBytes) {
+        if (maxPooledBuffers < 0 || initialCapacity <= 0 || maxRetainedBytes < initialCapacity) {
+            throw new IllegalArgumentException("[maxPooledBuffers:" + maxPooledBuffers + ",initialCapacity:"
+                    + initialCapacity + ",maxRetainedBytes:" + maxRetainedBytes + "]");
+        }
+        this.buffers = new ConcurrentLinkedQueue<>();
+        this.pooledCount = new AtomicInteger();
+        this.maxPooledBuffers = maxPooledBuffers;
+        this.initialCapacity = initialCapacity;
+        this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    public Buffer acquire() {
+        Buffer buffer = buffers.poll();
+        if (buffer == null) {
+            return new Buffer(initialCapacity);
+        }
+        pooledCount.decrementAndGet();
+        buffer.released.set(false);
+        return buffer;
+    }
+
+    public void release(Buffer buffer) {
+        if (buffer == null || !buffer.released.compareAndSet(false, true) || buffer.capacity() > maxRetainedBytes) {
+            return;
+        }
+        buffer.reset();
+        if (pooledCount.incrementAndGet() > maxPooledBuffers) {
+            pooledCount.decrementAndGet();
+            return;
+        }
+        buffers.offer(buffer);
+    }
+
+    public int pooledCount() {
+        return pooledCount.get();
+    }
+}
@@ -0,0 +1,65 @@
+package com.openfeign;
+
+/**
+ * Holds the pooled buffer a request body was encoded into for as long as the client call that encoded it
+ * runs, so the transport can write it and the log can read it without copying it into the request.
+ * Scopes are per thread; a call made while another one is running on the same thread opens a nested scope.
+ */
+final class EncodeBufferScope {
+    private static final ThreadLocal<EncodeBufferScope> CURRENT = new ThreadLocal<>();
+    private final EncodeBufferScope previous;
+    private EncodeBufferPool pool;
+    private EncodeBufferPool.Buffer buffer;
+
+    private EncodeBufferScope(EncodeBufferScope previous) {
+        this.previous = previous;
+    }
+
+    static EncodeBufferScope open() {
+        EncodeBufferScope scope = new EncodeBufferScope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Hands the buffer to the scope of the running call, which releases it when the call ends. Only the
+     * first body a call encodes is its request body; later ones, such as a response body re-encoded for
+     * the log, are not taken.
+     *
+     * @return false if the buffer was not taken; the caller keeps it in that case
+     */
+    static boolean attach(EncodeBufferPool pool, EncodeBufferPool.Buffer buffer) {
+        EncodeBufferScope scope = CURRENT.get();
+        if (scope == null || scope.buffer != null) {
+            return false;
+        }
+        scope.pool = pool;
+        scope.buffer = buffer;
+        return true;
+    }
+
+    /**
+     * @return the body encoded by the running call, or null if it did not encode one into a pooled buffer
+     */
+    static EncodeBufferPool.Buffer pendingBody() {
+        EncodeBufferScope scope = CURRENT.get();
+        return scope == null ? null : scope.buffer;
+    }
+
+    void close() {
+        releaseBuffer();
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    private void releaseBuffer() {
+        if (buffer != null) {
+            pool.release(buffer);
+            buffer = null;
+            pool = null;
+        }
+    }
+}
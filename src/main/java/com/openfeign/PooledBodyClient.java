@@ -0,0 +1,111 @@
+package com.openfeign;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends a body that {@link PooledGsonEncoder} left in the call's pooled buffer. Over the default
+ * transport the buffer's array is written as is, up to the buffer's size; a custom delegate, or a
+ * request that asks for a Content-Encoding, gets a copy of it as the request body. Requests that
+ * carry their own body go to the delegate unchanged.
+ */
+class PooledBodyClient implements Client {
+    private final Client delegate;
+    private final boolean zeroCopy;
+
+    /**
+     * @param delegate the client to send through, or null for {@link HttpURLConnection}
+     */
+    PooledBodyClient(Client delegate) {
+        this.delegate = delegate == null ? new Client.Default(null, null) : delegate;
+        this.zeroCopy = delegate == null;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        EncodeBufferPool.Buffer buffer = EncodeBufferScope.pendingBody();
+        if (buffer == null || request.body() != null) {
+            return delegate.execute(request, options);
+        }
+        if (!zeroCopy || request.headers().containsKey("Content-Encoding")) {
+            return delegate.execute(Request.create(request.method(), request.url(), request.headers(),
+                    buffer.toByteArray(), request.charset()), options);
+        }
+        return receive(send(request, options, buffer), request);
+    }
+
+    private HttpURLConnection send(Request request, Request.Options options, EncodeBufferPool.Buffer buffer) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(request.url()).openConnection();
+        connection.setConnectTimeout(options.connectTimeoutMillis());
+        connection.setReadTimeout(options.readTimeoutMillis());
+        connection.setAllowUserInteraction(false);
+        connection.setInstanceFollowRedirects(true);
+        connection.setRequestMethod(request.method());
+
+        boolean hasAcceptHeader = false;
+        for (Map.Entry<String, Collection<String>> header : request.headers().entrySet()) {
+            // the length comes from the buffer, whatever the template says
+            if (header.getKey().equalsIgnoreCase("Content-Length")) {
+                continue;
+            }
+            hasAcceptHeader |= header.getKey().equalsIgnoreCase("Accept");
+            for (String value : header.getValue()) {
+                connection.addRequestProperty(header.getKey(), value);
+            }
+        }
+        if (!hasAcceptHeader) {
+            connection.addRequestProperty("Accept", "*/*");
+        }
+
+        connection.setFixedLengthStreamingMode(buffer.size());
+        connection.setDoOutput(true);
+        OutputStream out = connection.getOutputStream();
+        try {
+            buffer.writeTo(out);
+        } finally {
+            out.close();
+        }
+        return connection;
+    }
+
+    private Response receive(HttpURLConnection connection, Request request) throws IOException {
+        int status = connection.getResponseCode();
+        String reason = connection.getResponseMessage();
+        if (status < 0) {
+            throw new IOException(String.format("Invalid status(%s) executing %s %s", status,
+                    connection.getRequestMethod(), connection.getURL()));
+        }
+
+        Map<String, Collection<String>> headers = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> field : connection.getHeaderFields().entrySet()) {
+            // the status line comes back under the null key
+            if (field.getKey() != null) {
+                headers.put(field.getKey(), field.getValue());
+            }
+        }
+
+        Integer length = connection.getContentLength();
+        if (length == -1) {
+            length = null;
+        }
+        InputStream stream = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        return Response.builder()
+                .status(status)
+                .reason(reason)
+                .headers(headers)
+                .request(request)
+                .body(stream, length)
+                .build();
+    }
+}
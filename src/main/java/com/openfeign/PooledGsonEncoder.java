@@ -0,0 +1,60 @@
+package com.openfeign;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import feign.RequestTemplate;
+import feign.codec.EncodeException;
+import feign.codec.Encoder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+
+/**
+ * Json encoder that streams the body straight into a pooled buffer instead of
+ * building an intermediate {@code String}. Inside a {@link ClientFactory} call the
+ * buffer stays with the call: the template only gets its Content-Length, the
+ * transport writes the buffer's array as is, and the buffer goes back to the pool
+ * when the call ends. Anywhere else the template gets a copy and the buffer goes
+ * back right away. A buffer whose encoding failed is dropped, as its writer may
+ * still hold pending chars.
+ */
+public class PooledGsonEncoder implements Encoder {
+    private static final Charset UTF_8 = Charset.forName("utf-8");
+    private final Gson gson;
+    private final EncodeBufferPool bufferPool;
+
+    public PooledGsonEncoder(EncodeBufferPool bufferPool) {
+        this(new Gson(), bufferPool);
+    }
+
+    public PooledGsonEncoder(Gson gson, EncodeBufferPool bufferPool) {
+        if (gson == null || bufferPool == null) {
+            throw new NullPointerException("[gson:" + gson + ",bufferPool:" + bufferPool + "]");
+        }
+        this.gson = gson;
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public void encode(Object object, Type bodyType, RequestTemplate template) throws EncodeException {
+        EncodeBufferPool.Buffer buffer = bufferPool.acquire();
+        try {
+            Writer writer = buffer.writer();
+            gson.toJson(object, bodyType, writer);
+            writer.flush();
+        } catch (IOException | JsonIOException e) {
+            throw new EncodeException(e.getMessage(), e);
+        }
+        if (EncodeBufferScope.attach(bufferPool, buffer)) {
+            template.body(null, UTF_8);
+            template.header("Content-Length", String.valueOf(buffer.size()));
+            return;
+        }
+        // the template keeps the array it is given, so hand it an exactly sized copy and keep the pooled one
+        byte[] body = buffer.toByteArray();
+        bufferPool.release(buffer);
+        template.body(body, UTF_8);
+    }
+}
@@ -0,0 +1,19 @@
+package com.openfeign;
+
+public class RateLimitException extends RuntimeException {
+    private String methodKey;
+
+    public RateLimitException(String methodKey) {
+        super("rate limit exceeded for " + methodKey);
+        this.methodKey = methodKey;
+    }
+
+    public RateLimitException(String methodKey, InterruptedException cause) {
+        super("interrupted while waiting for a rate limit permit for " + methodKey, cause);
+        this.methodKey = methodKey;
+    }
+
+    public String getMethodKey() {
+        return methodKey;
+    }
+}
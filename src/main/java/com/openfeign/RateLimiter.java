@@ -0,0 +1,323 @@
+package com.openfeign;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket shared by all calls it is registered for. A call either gets a permit right away
+ * ({@code passed}), waits at most {@code maxWaitMillis} for one ({@code queued}) or fails locally
+ * ({@code throttled}). {@code Retry-After} and {@code RateLimit-Remaining}/{@code RateLimit-Reset}
+ * response headers (with or without the {@code X-} prefix) pause the bucket until the upstream allows
+ * calls again. When several limiters guard one call, the call gets a permit from all of them or from none.
+ */
+public class RateLimiter {
+    private static final long EPOCH_SECONDS_THRESHOLD = 1000000000L;
+    private static final AtomicLong IDS = new AtomicLong();
+    private final long id;
+    private final ReentrantLock lock;
+    private final double permitsPerSecond;
+    private final double maxStoredPermits;
+    private final long intervalNanos;
+    private final long maxWaitNanos;
+    private double storedPermits;
+    private long nextFreeNanos;
+    private final AtomicLong passedCount;
+    private final AtomicLong queuedCount;
+    private final AtomicLong throttledCount;
+
+    public static class Builder {
+        private double permitsPerSecond;
+        private Integer burst;
+        private boolean smooth;
+        private long maxWaitMillis;
+
+        public Builder permitsPerSecond(double permitsPerSecond) {
+            this.permitsPerSecond = permitsPerSecond;
+            return this;
+        }
+
+        public Builder burst(int burst) {
+            this.burst = burst;
+            return this;
+        }
+
+        public Builder smooth(boolean smooth) {
+            this.smooth = smooth;
+            return this;
+        }
+
+        public Builder maxWaitMillis(long maxWaitMillis) {
+            this.maxWaitMillis = maxWaitMillis;
+            return this;
+        }
+
+        public RateLimiter build() {
+            if (permitsPerSecond <= 0 || maxWaitMillis < 0 || (burst != null && (burst < 1 || smooth))) {
+                throw new IllegalArgumentException("[permitsPerSecond:" + permitsPerSecond + ",burst:" + burst
+                        + ",smooth:" + smooth + ",maxWaitMillis:" + maxWaitMillis + "]");
+            }
+            double capacity = smooth ? 1 : (burst == null ? Math.max(1, permitsPerSecond) : burst);
+            return new RateLimiter(permitsPerSecond, capacity, maxWaitMillis);
+        }
+    }
+
+    public static Builder Builder() {
+        return new Builder();
+    }
+
+    private RateLimiter(double permitsPerSecond, double capacity, long maxWaitMillis) {
+        this.id = IDS.incrementAndGet();
+        this.lock = new ReentrantLock();
+        this.permitsPerSecond = permitsPerSecond;
+        // the permit handed out when nextFreeNanos has been reached counts towards the burst as well
+        this.maxStoredPermits = capacity - 1;
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.storedPermits = maxStoredPermits;
+        this.nextFreeNanos = System.nanoTime();
+        this.passedCount = new AtomicLong();
+        this.queuedCount = new AtomicLong();
+        this.throttledCount = new AtomicLong();
+    }
+
+    /**
+     * Takes a permit, waiting up to {@code maxWaitMillis} for it.
+     *
+     * @return false if no permit becomes available in time; nothing is consumed in that case
+     */
+    public boolean acquire() throws InterruptedException {
+        return acquire(Collections.singletonList(this));
+    }
+
+    /**
+     * Takes one permit from each limiter, or none at all. The call waits for the slowest limiter, and
+     * is throttled if that wait exceeds the {@code maxWaitMillis} of any of them. Every limiter counts
+     * the call with the same outcome. If the wait is interrupted the permits are given back and the
+     * call counts as throttled.
+     *
+     * @return false if the call is throttled; nothing is consumed in that case
+     */
+    public static boolean acquire(List<RateLimiter> limiters) throws InterruptedException {
+        Reservation reservation = reserve(limiters, System.nanoTime());
+        if (reservation == null) {
+            return false;
+        }
+        if (reservation.waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(reservation.waitNanos);
+            } catch (InterruptedException e) {
+                reservation.cancel();
+                throw e;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Blocks the bucket until the upstream is expected to accept calls again, as announced by the response headers.
+     */
+    public void observe(Map<String, Collection<String>> headers) {
+        observe(headers, System.currentTimeMillis(), System.nanoTime());
+    }
+
+    void observe(Map<String, Collection<String>> headers, long nowMillis, long nowNanos) {
+        if (headers == null || headers.isEmpty()) {
+            return;
+        }
+        long pauseMillis = parseRetryAfter(header(headers, "Retry-After"), nowMillis);
+        String remaining = header(headers, "X-RateLimit-Remaining", "RateLimit-Remaining");
+        if (remaining != null && parseLong(remaining) == 0) {
+            pauseMillis = Math.max(pauseMillis, parseReset(header(headers, "X-RateLimit-Reset", "RateLimit-Reset"), nowMillis));
+        }
+        if (pauseMillis > 0) {
+            pause(TimeUnit.MILLISECONDS.toNanos(pauseMillis), nowNanos);
+        }
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public long getPassedCount() {
+        return passedCount.get();
+    }
+
+    public long getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    static class Reservation {
+        private final List<RateLimiter> limiters;
+        private final double[] spentPermits;
+        final long waitNanos;
+
+        private Reservation(List<RateLimiter> limiters, double[] spentPermits, long waitNanos) {
+            this.limiters = limiters;
+            this.spentPermits = spentPermits;
+            this.waitNanos = waitNanos;
+        }
+
+        void cancel() {
+            lockAll(limiters);
+            try {
+                for (int i = 0; i < limiters.size(); i++) {
+                    RateLimiter limiter = limiters.get(i);
+                    limiter.refund(spentPermits[i]);
+                    limiter.queuedCount.decrementAndGet();
+                    limiter.throttledCount.incrementAndGet();
+                }
+            } finally {
+                unlockAll(limiters);
+            }
+        }
+    }
+
+    /**
+     * @return the reservation, or null if the call is throttled
+     */
+    static Reservation reserve(List<RateLimiter> limiters, long nowNanos) {
+        List<RateLimiter> ordered = ordered(limiters);
+        lockAll(ordered);
+        try {
+            long waitNanos = 0;
+            long maxWaitNanos = Long.MAX_VALUE;
+            for (RateLimiter limiter : ordered) {
+                limiter.refill(nowNanos);
+                waitNanos = Math.max(waitNanos, limiter.nextFreeNanos - nowNanos);
+                maxWaitNanos = Math.min(maxWaitNanos, limiter.maxWaitNanos);
+            }
+            if (waitNanos > maxWaitNanos) {
+                for (RateLimiter limiter : ordered) {
+                    limiter.throttledCount.incrementAndGet();
+                }
+                return null;
+            }
+
+            double[] spentPermits = new double[ordered.size()];
+            for (int i = 0; i < ordered.size(); i++) {
+                RateLimiter limiter = ordered.get(i);
+                spentPermits[i] = limiter.take();
+                (waitNanos == 0 ? limiter.passedCount : limiter.queuedCount).incrementAndGet();
+            }
+            return new Reservation(ordered, spentPermits, waitNanos);
+        } finally {
+            unlockAll(ordered);
+        }
+    }
+
+    // a fixed lock order keeps concurrent multi-limiter reservations from deadlocking
+    private static List<RateLimiter> ordered(List<RateLimiter> limiters) {
+        List<RateLimiter> ordered = new ArrayList<>(limiters.size());
+        for (RateLimiter limiter : limiters) {
+            if (!ordered.contains(limiter)) {
+                ordered.add(limiter);
+            }
+        }
+        ordered.sort(Comparator.comparingLong(limiter -> limiter.id));
+        return ordered;
+    }
+
+    private static void lockAll(List<RateLimiter> limiters) {
+        for (RateLimiter limiter : limiters) {
+            limiter.lock.lock();
+        }
+    }
+
+    private static void unlockAll(List<RateLimiter> limiters) {
+        for (int i = limiters.size() - 1; i >= 0; i--) {
+            limiters.get(i).lock.unlock();
+        }
+    }
+
+    private double take() {
+        double spent = Math.min(1, storedPermits);
+        storedPermits -= spent;
+        nextFreeNanos += (long) ((1 - spent) * intervalNanos);
+        return spent;
+    }
+
+    private void refund(double spent) {
+        nextFreeNanos -= (long) ((1 - spent) * intervalNanos);
+        storedPermits = Math.min(maxStoredPermits, storedPermits + spent);
+    }
+
+    private void pause(long pauseNanos, long nowNanos) {
+        lock.lock();
+        try {
+            long until = nowNanos + pauseNanos;
+            if (until > nextFreeNanos) {
+                nextFreeNanos = until;
+                storedPermits = 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill(long nowNanos) {
+        if (nowNanos > nextFreeNanos) {
+            storedPermits = Math.min(maxStoredPermits, storedPermits + (nowNanos - nextFreeNanos) / (double) intervalNanos);
+            nextFreeNanos = nowNanos;
+        }
+    }
+
+    private static String header(Map<String, Collection<String>> headers, String... names) {
+        for (Map.Entry<String, Collection<String>> entry : headers.entrySet()) {
+            for (String name : names) {
+                if (name.equalsIgnoreCase(entry.getKey()) && entry.getValue() != null && !entry.getValue().isEmpty()) {
+                    return entry.getValue().iterator().next().trim();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static long parseRetryAfter(String value, long nowMillis) {
+        if (value == null) {
+            return 0;
+        }
+        long seconds = parseLong(value);
+        if (seconds >= 0) {
+            return TimeUnit.SECONDS.toMillis(seconds);
+        }
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() - nowMillis;
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    private static long parseReset(String value, long nowMillis) {
+        long seconds = value == null ? -1 : parseLong(value);
+        if (seconds < 0) {
+            return 0;
+        }
+        // some upstreams send the reset as epoch seconds, others as seconds from now
+        if (seconds >= EPOCH_SECONDS_THRESHOLD) {
+            return TimeUnit.SECONDS.toMillis(seconds) - nowMillis;
+        }
+        return TimeUnit.SECONDS.toMillis(seconds);
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
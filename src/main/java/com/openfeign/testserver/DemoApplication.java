@@ -1,17 +1,20 @@
 package com.openfeign.testserver;
 
 import com.openfeign.testserver.entities.Record;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import javax.servlet.http.HttpServletResponse;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 @SpringBootApplication
 @RestController
+@EnableConfigurationProperties(PerformanceProperties.class)
 public class DemoApplication {
 
 	public static void main(String[] args) {
@@ -21,82 +24,88 @@ public class DemoApplication {
 	private static ConcurrentHashMap<Long, Record> repository = new ConcurrentHashMap<>();
 	private static AtomicLong index = new AtomicLong();
 
+	@Autowired
+	private PerformanceMode performanceMode;
+
 	@PostMapping("/uid/{uid}/record")
-	public synchronized Object createRecord(@PathVariable("uid") Long uid,
-											@RequestBody Record record) {
-		record.setId(index.getAndIncrement());
-		repository.put(record.getId(), record);
-		return record;
+	public Object createRecord(@PathVariable("uid") Long uid,
+							   @RequestBody Record record) {
+		return performanceMode.respond("createRecord", () -> {
+			Record created = newRecord(index.getAndIncrement(), record.getUserId(), record.getContent());
+			repository.put(created.getId(), created);
+			return ResponseEntity.ok(created);
+		});
 	}
 
 	@PutMapping("/uid/{uid}/record/{cid}")
-	public synchronized Object updateRecord(@PathVariable("uid") Long uid,
-											@PathVariable("cid") Long cid,
-											@RequestParam("content") String content,
-											HttpServletResponse response) {
-		Map result = new HashMap();
-		Record record = repository.get(cid);
-		if(record == null) {
-			response.setStatus(400);
-			ErrorType errorType = new ErrorType();
-			errorType.setErrorCode("11404");
-			errorType.setDescribe("Invalid record id");
-			return errorType;
-		} else {
-			record.setContent(content);
-			repository.put(record.getId(), record);
-			return record;
-		}
+	public Object updateRecord(@PathVariable("uid") Long uid,
+							   @PathVariable("cid") Long cid,
+							   @RequestParam("content") String content) {
+		return performanceMode.respond("updateRecord", () -> {
+			// stored records are never modified, so concurrent readers always serialize a consistent one
+			Record record = repository.computeIfPresent(cid, (id, stored) -> newRecord(id, stored.getUserId(), content));
+			if(record == null) {
+				return invalidRecord();
+			}
+			return ResponseEntity.ok(record);
+		});
 	}
 
 	@GetMapping("/uid/{uid}/record/{cid}")
-	public synchronized Object getRecord(@PathVariable("uid") Long uid,
-											@PathVariable("cid") Long cid,
-											HttpServletResponse response) {
-		Map result = new HashMap();
-		Record record = repository.get(cid);
-		if(record == null) {
-			response.setStatus(400);
-			ErrorType errorType = new ErrorType();
-			errorType.setErrorCode("11404");
-			errorType.setDescribe("Invalid record id");
-			return errorType;
-		} else {
+	public Object getRecord(@PathVariable("uid") Long uid,
+							@PathVariable("cid") Long cid) {
+		return performanceMode.respond("getRecord", () -> {
+			Map result = new HashMap();
+			Record record = repository.get(cid);
+			if(record == null) {
+				return invalidRecord();
+			}
 			result.put("record", record);
-		}
-		return result;
+			return ResponseEntity.ok(result);
+		});
 	}
 
 	@GetMapping("/uid/{uid}/record")
-	public synchronized Object getAllRecordOfUser(@PathVariable("uid") Long uid) {
-		Map result = new HashMap();
-		List<Record> recordList = new ArrayList<>();
-		Collection<Record> records = repository.values();
-		for (Record record : records) {
-			if(uid.equals(record.getUserId())) {
-				recordList.add(record);
+	public Object getAllRecordOfUser(@PathVariable("uid") Long uid) {
+		return performanceMode.respond("getAllRecordOfUser", () -> {
+			Map result = new HashMap();
+			List<Record> recordList = new ArrayList<>();
+			Collection<Record> records = repository.values();
+			for (Record record : records) {
+				if(uid.equals(record.getUserId())) {
+					recordList.add(record);
+				}
 			}
-		}
-		result.put("recordList", recordList);
-		return result;
+			result.put("recordList", recordList);
+			return ResponseEntity.ok(result);
+		});
 	}
 
 	@DeleteMapping("/uid/{uid}/record/{cid}")
-	public synchronized Object deleteRecord(@PathVariable("uid") Long uid,
-										 @PathVariable("cid") Long cid,
-										 HttpServletResponse response) {
-		Map result = new HashMap();
-		Record record = repository.get(cid);
-		if(record == null) {
-			response.setStatus(400);
-			ErrorType errorType = new ErrorType();
-			errorType.setErrorCode("11404");
-			errorType.setDescribe("Invalid record id");
-			return errorType;
-		} else {
-			repository.remove(cid);
-		}
-		return result;
+	public Object deleteRecord(@PathVariable("uid") Long uid,
+							   @PathVariable("cid") Long cid) {
+		return performanceMode.respond("deleteRecord", () -> {
+			Record record = repository.remove(cid);
+			if(record == null) {
+				return invalidRecord();
+			}
+			return ResponseEntity.ok(new HashMap());
+		});
+	}
+
+	private static Record newRecord(Long id, Long userId, String content) {
+		Record record = new Record();
+		record.setId(id);
+		record.setUserId(userId);
+		record.setContent(content);
+		return record;
+	}
+
+	private static ResponseEntity<Object> invalidRecord() {
+		ErrorType errorType = new ErrorType();
+		errorType.setErrorCode("11404");
+		errorType.setDescribe("Invalid record id");
+		return ResponseEntity.badRequest().body(errorType);
 	}
 
 }
@@ -0,0 +1,39 @@
+package com.openfeign.testserver;
+
+import java.util.Random;
+
+public enum LatencyDistribution {
+    FIXED {
+        @Override
+        public double sample(double meanMillis, double sigma, Random random) {
+            return meanMillis;
+        }
+    },
+    UNIFORM {
+        @Override
+        public double sample(double meanMillis, double sigma, Random random) {
+            return random.nextDouble() * 2 * meanMillis;
+        }
+    },
+    EXPONENTIAL {
+        @Override
+        public double sample(double meanMillis, double sigma, Random random) {
+            return -meanMillis * Math.log(1 - random.nextDouble());
+        }
+    },
+    /**
+     * Long tailed; {@code sigma} is the standard deviation of the underlying normal distribution.
+     */
+    LOG_NORMAL {
+        @Override
+        public double sample(double meanMillis, double sigma, Random random) {
+            if (meanMillis <= 0) {
+                return 0;
+            }
+            double mu = Math.log(meanMillis) - sigma * sigma / 2;
+            return Math.exp(mu + sigma * random.nextGaussian());
+        }
+    };
+
+    public abstract double sample(double meanMillis, double sigma, Random random);
+}
@@ -0,0 +1,82 @@
+package com.openfeign.testserver;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.annotation.PreDestroy;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs handlers directly while the mode is disabled. With the mode enabled a share of the
+ * responses is replaced by an injected error, and responses with a sampled latency are
+ * completed asynchronously from a scheduler, so simulated latency never holds a container thread.
+ * Whether the mode is enabled is read once, on creation, and the scheduler is only started if it is.
+ */
+@Component
+public class PerformanceMode {
+    private final PerformanceProperties properties;
+    private final boolean enabled;
+    private final ScheduledExecutorService scheduler;
+
+    public PerformanceMode(PerformanceProperties properties) {
+        this.properties = properties;
+        this.enabled = properties.isEnabled();
+        this.scheduler = enabled
+                ? Executors.newScheduledThreadPool(Math.max(1, properties.getSchedulerThreads())) : null;
+    }
+
+    /**
+     * @return the handler's {@link ResponseEntity}, or a {@link DeferredResult} of it when the response is delayed
+     */
+    public Object respond(String endpoint, Supplier<ResponseEntity<Object>> handler) {
+        if (!enabled) {
+            return handler.get();
+        }
+
+        PerformanceProperties.EndpointProfile profile = properties.profileOf(endpoint);
+        Random random = ThreadLocalRandom.current();
+        long delayMillis = sampleLatency(profile, random);
+        Supplier<ResponseEntity<Object>> response = random.nextDouble() < profile.getErrorRate()
+                ? () -> injectedError(profile) : handler;
+        if (delayMillis <= 0) {
+            return response.get();
+        }
+        DeferredResult<ResponseEntity<Object>> result = new DeferredResult<>();
+        scheduler.schedule(() -> complete(result, response), delayMillis, TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private long sampleLatency(PerformanceProperties.EndpointProfile profile, Random random) {
+        double latency = profile.getLatencyDistribution()
+                .sample(profile.getLatencyMeanMillis(), profile.getLatencySigma(), random);
+        return Math.min(Math.round(latency), profile.getLatencyMaxMillis());
+    }
+
+    private ResponseEntity<Object> injectedError(PerformanceProperties.EndpointProfile profile) {
+        ErrorType errorType = new ErrorType();
+        errorType.setErrorCode("11" + profile.getErrorStatus());
+        errorType.setDescribe("Injected error");
+        return ResponseEntity.status(profile.getErrorStatus()).body(errorType);
+    }
+
+    private void complete(DeferredResult<ResponseEntity<Object>> result, Supplier<ResponseEntity<Object>> handler) {
+        try {
+            result.setResult(handler.get());
+        } catch (Throwable throwable) {
+            result.setErrorResult(throwable);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.openfeign.testserver;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Latency and error injection settings, keyed by handler method name
+ * (e.g. {@code demo.performance.endpoints.getRecord.error-rate=0.05}).
+ * Endpoints without an entry use {@code demo.performance.defaults}.
+ */
+@ConfigurationProperties(prefix = "demo.performance")
+public class PerformanceProperties {
+    private boolean enabled;
+    private int schedulerThreads = 2;
+    private EndpointProfile defaults = new EndpointProfile();
+    private Map<String, EndpointProfile> endpoints = new HashMap<>();
+
+    public static class EndpointProfile {
+        private LatencyDistribution latencyDistribution = LatencyDistribution.FIXED;
+        private double latencyMeanMillis;
+        private double latencySigma = 1.0;
+        private long latencyMaxMillis = 10 * 1000;
+        private double errorRate;
+        private int errorStatus = 400;
+
+        public LatencyDistribution getLatencyDistribution() {
+            return latencyDistribution;
+        }
+
+        public void setLatencyDistribution(LatencyDistribution latencyDistribution) {
+            this.latencyDistribution = latencyDistribution;
+        }
+
+        public double getLatencyMeanMillis() {
+            return latencyMeanMillis;
+        }
+
+        public void setLatencyMeanMillis(double latencyMeanMillis) {
+            this.latencyMeanMillis = latencyMeanMillis;
+        }
+
+        public double getLatencySigma() {
+            return latencySigma;
+        }
+
+        public void setLatencySigma(double latencySigma) {
+            this.latencySigma = latencySigma;
+        }
+
+        public long getLatencyMaxMillis() {
+            return latencyMaxMillis;
+        }
+
+        public void setLatencyMaxMillis(long latencyMaxMillis) {
+            this.latencyMaxMillis = latencyMaxMillis;
+        }
+
+        public double getErrorRate() {
+            return errorRate;
+        }
+
+        public void setErrorRate(double errorRate) {
+            this.errorRate = errorRate;
+        }
+
+        public int getErrorStatus() {
+            return errorStatus;
+        }
+
+        public void setErrorStatus(int errorStatus) {
+            this.errorStatus = errorStatus;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getSchedulerThreads() {
+        return schedulerThreads;
+    }
+
+    public void setSchedulerThreads(int schedulerThreads) {
+        this.schedulerThreads = schedulerThreads;
+    }
+
+    public EndpointProfile getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(EndpointProfile defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, EndpointProfile> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(Map<String, EndpointProfile> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    public EndpointProfile profileOf(String endpoint) {
+        EndpointProfile profile = endpoints.get(endpoint);
+        return profile == null ? defaults : profile;
+    }
+}
@@ -0,0 +1,89 @@
+package com.openfeign;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.*;
+
+public class EncodeBufferPoolTests {
+	private static final Charset UTF_8 = Charset.forName("utf-8");
+
+	@Test
+	public void releasedBufferIsReusedEmpty() throws IOException {
+		EncodeBufferPool pool = new EncodeBufferPool(2, 16, 64);
+		EncodeBufferPool.Buffer buffer = pool.acquire();
+		buffer.writer().write("abc");
+		pool.release(buffer);
+		assertEquals(1, pool.pooledCount());
+
+		EncodeBufferPool.Buffer reused = pool.acquire();
+		assertSame(buffer, reused);
+		assertEquals(0, reused.size());
+		assertEquals(0, pool.pooledCount());
+	}
+
+	@Test
+	public void bufferAboveMaxRetainedBytesIsDropped() throws IOException {
+		EncodeBufferPool pool = new EncodeBufferPool(2, 16, 64);
+		EncodeBufferPool.Buffer buffer = pool.acquire();
+		buffer.writer().write(new String(new char[100]).replace('\0', 'x'));
+		assertTrue(buffer.capacity() > 64);
+		pool.release(buffer);
+		assertEquals(0, pool.pooledCount());
+		assertNotSame(buffer, pool.acquire());
+	}
+
+	@Test
+	public void poolKeepsAtMostMaxPooledBuffers() {
+		EncodeBufferPool pool = new EncodeBufferPool(2, 16, 64);
+		EncodeBufferPool.Buffer first = pool.acquire();
+		EncodeBufferPool.Buffer second = pool.acquire();
+		EncodeBufferPool.Buffer third = pool.acquire();
+		pool.release(first);
+		pool.release(second);
+		pool.release(third);
+		assertEquals(2, pool.pooledCount());
+	}
+
+	@Test
+	public void secondReleaseIsIgnored() {
+		EncodeBufferPool pool = new EncodeBufferPool(2, 16, 64);
+		EncodeBufferPool.Buffer buffer = pool.acquire();
+		pool.release(buffer);
+		pool.release(buffer);
+		assertEquals(1, pool.pooledCount());
+
+		assertSame(buffer, pool.acquire());
+		assertNotSame(buffer, pool.acquire());
+		pool.release(buffer);
+		assertEquals(1, pool.pooledCount());
+	}
+
+	@Test
+	public void writerEncodesLikeStringGetBytes() throws IOException {
+		String text = "ascii \u00e9\u4e2d \uD83D\uDE00 lone \uD83D x \uDE00 end";
+		int split = text.indexOf('\uDE00');
+		EncodeBufferPool.Buffer buffer = new EncodeBufferPool(1, 4, 1024).acquire();
+		Writer writer = buffer.writer();
+		// the surrogate pair is split across writes
+		writer.write(text, 0, split);
+		writer.write(text.toCharArray(), split, 10);
+		for (int i = split + 10; i < text.length(); i++) {
+			writer.write(text.charAt(i));
+		}
+		writer.flush();
+		assertArrayEquals(text.getBytes(UTF_8), buffer.toByteArray());
+	}
+
+	@Test
+	public void danglingHighSurrogateIsWrittenOnFlush() throws IOException {
+		EncodeBufferPool.Buffer buffer = new EncodeBufferPool(1, 4, 1024).acquire();
+		buffer.writer().write("a\uD83D");
+		assertEquals(1, buffer.size());
+		buffer.writer().flush();
+		assertArrayEquals("a\uD83D".getBytes(UTF_8), buffer.toByteArray());
+	}
+}
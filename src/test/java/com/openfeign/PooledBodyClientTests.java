@@ -0,0 +1,130 @@
+package com.openfeign;
+
+import com.google.gson.Gson;
+import com.openfeign.client.RecordApiClient;
+import com.openfeign.client.entities.Record;
+import com.openfeign.testserver.ErrorType;
+import com.sun.net.httpserver.HttpServer;
+import feign.Client;
+import feign.Request;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PooledBodyClientTests {
+	private static final Charset UTF_8 = Charset.forName("utf-8");
+	private HttpServer server;
+	private List<String> receivedBodies;
+	private List<String> receivedLengths;
+
+	@Before
+	public void startServer() throws IOException {
+		receivedBodies = Collections.synchronizedList(new ArrayList<>());
+		receivedLengths = Collections.synchronizedList(new ArrayList<>());
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/uid/1/record", exchange -> {
+			byte[] body = readAll(exchange.getRequestBody());
+			receivedBodies.add(new String(body, UTF_8));
+			receivedLengths.add(exchange.getRequestHeaders().getFirst("Content-Length"));
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void stopServer() {
+		server.stop(0);
+	}
+
+	@Test
+	public void pooledBodyIsSentFromBufferAndReleasedAfterCall() {
+		EncodeBufferPool pool = new EncodeBufferPool(4, 16, 1024);
+		ClientFactory factory = ClientFactory.Builder().bufferPool(pool).allowRequestLog(true).build();
+		RecordApiClient client = factory.createPooledJsonClient(RecordApiClient.class, baseUrl());
+
+		Record record = record("caf\u00e9 \uD83D\uDE00");
+		String expected = new Gson().toJson(record);
+		for (int i = 0; i < 2; i++) {
+			BaseResponse<Record, ErrorType> response = client.postRecord(1L, record);
+			assertEquals(200, response.getStatus());
+			assertEquals(record.getContent(), response.getData().getContent());
+			assertEquals(1, pool.pooledCount());
+		}
+		assertEquals(expected, receivedBodies.get(0));
+		assertEquals(expected, receivedBodies.get(1));
+		assertEquals(String.valueOf(expected.getBytes(UTF_8).length), receivedLengths.get(0));
+	}
+
+	@Test
+	public void customClientGetsCopyOfPooledBody() {
+		EncodeBufferPool pool = new EncodeBufferPool(4, 16, 1024);
+		List<Request> requests = new ArrayList<>();
+		Client delegate = new Client.Default(null, null);
+		ClientFactory factory = ClientFactory.Builder()
+				.bufferPool(pool)
+				.client((request, options) -> {
+					requests.add(request);
+					return delegate.execute(request, options);
+				})
+				.build();
+		RecordApiClient client = factory.createPooledJsonClient(RecordApiClient.class, baseUrl());
+
+		Record record = record("copied");
+		BaseResponse<Record, ErrorType> response = client.postRecord(1L, record);
+		assertEquals(200, response.getStatus());
+		assertEquals("copied", response.getData().getContent());
+		assertArrayEquals(new Gson().toJson(record).getBytes(UTF_8), requests.get(0).body());
+		assertEquals(1, pool.pooledCount());
+	}
+
+	@Test
+	public void scopeKeepsFirstBodyUntilClosed() {
+		EncodeBufferPool pool = new EncodeBufferPool(4, 16, 1024);
+		EncodeBufferScope scope = EncodeBufferScope.open();
+		EncodeBufferPool.Buffer buffer = pool.acquire();
+		assertTrue(EncodeBufferScope.attach(pool, buffer));
+		// only the first body of a call is taken
+		assertFalse(EncodeBufferScope.attach(pool, pool.acquire()));
+		assertSame(buffer, EncodeBufferScope.pendingBody());
+		scope.close();
+		assertNull(EncodeBufferScope.pendingBody());
+		assertEquals(1, pool.pooledCount());
+	}
+
+	private String baseUrl() {
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+
+	private static Record record(String content) {
+		Record record = new Record();
+		record.setUserId(1L);
+		record.setContent(content);
+		return record;
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] chunk = new byte[1024];
+		int n;
+		while ((n = in.read(chunk)) != -1) {
+			out.write(chunk, 0, n);
+		}
+		return out.toByteArray();
+	}
+}
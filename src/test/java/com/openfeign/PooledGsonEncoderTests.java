@@ -0,0 +1,34 @@
+package com.openfeign;
+
+import com.google.gson.Gson;
+import com.openfeign.client.entities.Record;
+import feign.RequestTemplate;
+import feign.gson.GsonEncoder;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PooledGsonEncoderTests {
+
+	@Test
+	public void encodesSameBytesAsGsonEncoder() {
+		Gson gson = new Gson();
+		EncodeBufferPool pool = new EncodeBufferPool(1, 16, 1024);
+		PooledGsonEncoder pooledEncoder = new PooledGsonEncoder(gson, pool);
+		GsonEncoder gsonEncoder = new GsonEncoder(gson);
+
+		Record record = new Record();
+		record.setId(7L);
+		record.setUserId(1L);
+		record.setContent("content \"quoted\" \u00e9\u4e2d \uD83D\uDE00");
+
+		for (int i = 0; i < 2; i++) {
+			RequestTemplate pooled = new RequestTemplate();
+			pooledEncoder.encode(record, Record.class, pooled);
+			RequestTemplate expected = new RequestTemplate();
+			gsonEncoder.encode(record, Record.class, expected);
+			assertArrayEquals(expected.body(), pooled.body());
+		}
+		assertEquals(1, pool.pooledCount());
+	}
+}
@@ -0,0 +1,197 @@
+package com.openfeign;
+
+import com.openfeign.client.entities.Record;
+import com.openfeign.testserver.ErrorType;
+import feign.Client;
+import feign.Param;
+import feign.Request;
+import feign.RequestLine;
+import feign.Response;
+import feign.RetryableException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class RateLimitedClientTests {
+	private static final Charset UTF_8 = Charset.forName("utf-8");
+	private static final String RECORD_JSON = "{\"id\":1,\"userId\":1,\"content\":\"record\"}";
+
+	public interface RecordApi {
+		@RequestLine("GET /uid/{uid}/record/{cid}")
+		BaseResponse<Record, ErrorType> getRecord(@Param("uid") Long uid, @Param("cid") Long cid);
+
+		@RequestLine("GET /uid/{uid}/record/{cid}")
+		Record findRecord(@Param("uid") Long uid, @Param("cid") Long cid);
+
+		@RequestLine("DELETE /uid/{uid}/record/{cid}")
+		void deleteRecord(@Param("uid") Long uid, @Param("cid") Long cid);
+	}
+
+	@Test
+	public void objectMethodsSkipRateLimiters() {
+		RateLimiter limiter = RateLimiter.Builder().permitsPerSecond(1).burst(1).build();
+		StubClient stub = new StubClient(200);
+		RecordApi client = clientOf(stub, ClientFactory.Builder().rateLimiter(RecordApi.class, limiter));
+
+		for (int i = 0; i < 3; i++) {
+			assertNotNull(client.toString());
+			client.hashCode();
+			client.equals(client);
+		}
+		assertEquals(0, limiter.getPassedCount() + limiter.getThrottledCount());
+
+		assertEquals(200, client.getRecord(1L, 1L).getStatus());
+		assertEquals(1, limiter.getPassedCount());
+	}
+
+	@Test
+	public void throttledBaseResponseCallGets429WithoutRequest() {
+		RateLimiter limiter = RateLimiter.Builder().permitsPerSecond(1).burst(1).build();
+		StubClient stub = new StubClient(200);
+		RecordApi client = clientOf(stub, ClientFactory.Builder().rateLimiter(RecordApi.class, limiter));
+
+		assertEquals(200, client.getRecord(1L, 1L).getStatus());
+		BaseResponse<Record, ErrorType> throttled = client.getRecord(1L, 1L);
+		assertEquals(429, throttled.getStatus());
+		assertEquals("Too Many Requests (throttled locally)", throttled.getMessage());
+		assertEquals(1, stub.requests.size());
+		assertEquals(1, limiter.getThrottledCount());
+	}
+
+	@Test
+	public void throttledCallOfOtherReturnTypeThrows() {
+		RateLimiter limiter = RateLimiter.Builder().permitsPerSecond(1).burst(1).build();
+		StubClient stub = new StubClient(200);
+		RecordApi client = clientOf(stub, ClientFactory.Builder().rateLimiter(RecordApi.class, limiter));
+
+		assertEquals("record", client.findRecord(1L, 1L).getContent());
+		try {
+			client.findRecord(1L, 1L);
+			fail();
+		} catch (RateLimitException e) {
+			assertEquals("RecordApi#findRecord(Long,Long)", e.getMethodKey());
+		}
+		assertEquals(1, stub.requests.size());
+	}
+
+	@Test
+	public void interfaceAndMethodLimitersAreCombined() {
+		RateLimiter api = RateLimiter.Builder().permitsPerSecond(1).burst(5).build();
+		RateLimiter method = RateLimiter.Builder().permitsPerSecond(1).burst(1).build();
+		StubClient stub = new StubClient(200);
+		RecordApi client = clientOf(stub, ClientFactory.Builder()
+				.rateLimiter(RecordApi.class, api)
+				.rateLimiter(RecordApi.class, "getRecord", method));
+
+		assertEquals(200, client.getRecord(1L, 1L).getStatus());
+		assertEquals(429, client.getRecord(1L, 1L).getStatus());
+		assertNotNull(client.findRecord(1L, 1L));
+		assertEquals(2, api.getPassedCount());
+		assertEquals(1, api.getThrottledCount());
+		assertEquals(1, method.getPassedCount());
+		assertEquals(1, method.getThrottledCount());
+		assertEquals(2, stub.requests.size());
+	}
+
+	@Test
+	public void retryAfterOnSuccessPausesNextCall() {
+		RateLimiter limiter = RateLimiter.Builder().permitsPerSecond(100).burst(10).build();
+		StubClient stub = new StubClient(200).header("Retry-After", "60");
+		RecordApi client = clientOf(stub, ClientFactory.Builder().rateLimiter(RecordApi.class, limiter));
+
+		assertEquals(200, client.getRecord(1L, 1L).getStatus());
+		assertEquals(429, client.getRecord(1L, 1L).getStatus());
+		assertEquals(1, stub.requests.size());
+	}
+
+	@Test
+	public void retryAfterOnErrorPausesNextCall() {
+		RateLimiter limiter = RateLimiter.Builder().permitsPerSecond(100).burst(10).build();
+		StubClient stub = new StubClient(429).header("Retry-After", "60");
+		RecordApi client = clientOf(stub, ClientFactory.Builder().rateLimiter(RecordApi.class, limiter));
+
+		BaseResponse<Record, ErrorType> upstream = client.getRecord(1L, 1L);
+		assertEquals(429, upstream.getStatus());
+		assertEquals("11429", upstream.getError().getErrorCode());
+		assertEquals("Too Many Requests (throttled locally)", client.getRecord(1L, 1L).getMessage());
+		assertEquals(1, stub.requests.size());
+	}
+
+	@Test
+	public void exhaustedRemainingOnVoidMethodPausesNextCall() {
+		RateLimiter limiter = RateLimiter.Builder().permitsPerSecond(100).burst(10).build();
+		StubClient stub = new StubClient(200)
+				.header("RateLimit-Remaining", "0")
+				.header("RateLimit-Reset", "60");
+		RecordApi client = clientOf(stub, ClientFactory.Builder().rateLimiter(RecordApi.class, "deleteRecord", limiter));
+
+		client.deleteRecord(1L, 1L);
+		try {
+			client.deleteRecord(1L, 1L);
+			fail();
+		} catch (RateLimitException e) {
+			assertEquals("RecordApi#deleteRecord(Long,Long)", e.getMethodKey());
+		}
+		assertEquals(1, stub.requests.size());
+	}
+
+	@Test
+	public void rateLimitedClientDoesNotRetry() {
+		RateLimiter limiter = RateLimiter.Builder().permitsPerSecond(100).burst(10).build();
+		StubClient stub = new StubClient(200);
+		stub.failure = new IOException("connection reset");
+		RecordApi client = clientOf(stub, ClientFactory.Builder().rateLimiter(RecordApi.class, limiter));
+
+		try {
+			client.findRecord(1L, 1L);
+			fail();
+		} catch (RetryableException e) {
+			assertEquals(1, stub.requests.size());
+		}
+		assertEquals(1, limiter.getPassedCount());
+	}
+
+	private static RecordApi clientOf(StubClient stub, ClientFactory.Builder builder) {
+		return builder.client(stub).build().createJsonClient(RecordApi.class, "http://localhost:8080");
+	}
+
+	private static class StubClient implements Client {
+		private final List<Request> requests = new ArrayList<>();
+		private final int status;
+		private final Map<String, Collection<String>> headers = new HashMap<>();
+		private IOException failure;
+
+		StubClient(int status) {
+			this.status = status;
+		}
+
+		StubClient header(String name, String value) {
+			headers.put(name, Collections.singletonList(value));
+			return this;
+		}
+
+		@Override
+		public Response execute(Request request, Request.Options options) throws IOException {
+			requests.add(request);
+			if (failure != null) {
+				throw failure;
+			}
+			return Response.builder()
+					.status(status)
+					.reason(status < 400 ? "OK" : "Error")
+					.headers(headers)
+					.request(request)
+					.body(status < 400 ? RECORD_JSON : "{\"errorCode\":\"11429\"}", UTF_8)
+					.build();
+		}
+	}
+}
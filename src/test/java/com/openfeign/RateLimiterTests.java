@@ -0,0 +1,174 @@
+package com.openfeign;
+
+import org.junit.Test;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RateLimiterTests {
+	private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	@Test
+	public void burstAllowsCapacityCallsAtOnce() {
+		RateLimiter limiter = RateLimiter.Builder().permitsPerSecond(10).burst(3).build();
+		long now = System.nanoTime();
+		assertEquals(0, waitOf(limiter, now));
+		assertEquals(0, waitOf(limiter, now));
+		assertEquals(0, waitOf(limiter, now));
+		assertEquals(-1, waitOf(limiter, now));
+		assertEquals(3, limiter.getPassedCount());
+		assertEquals(1, limiter.getThrottledCount());
+	}
+
+	@Test
+	public void smoothSpacesCallsEvenly() {
+		RateLimiter limiter = RateLimiter.Builder().permitsPerSecond(10).smooth(true).build();
+		long now = System.nanoTime();
+		assertEquals(0, waitOf(limiter, now));
+		assertEquals(-1, waitOf(limiter, now + 99 * MILLIS));
+		assertEquals(0, waitOf(limiter, now + 100 * MILLIS));
+	}
+
+	@Test
+	public void refillIsFractional() {
+		RateLimiter limiter = RateLimiter.Builder().permitsPerSecond(10).burst(3).maxWaitMillis(1000).build();
+		long now = System.nanoTime();
+		for (int i = 0; i < 3; i++) {
+			waitOf(limiter, now);
+		}
+		// 150ms refill half a permit beyond the one due at 100ms, so the next call waits the other 50ms
+		assertEquals(0, waitOf(limiter, now + 150 * MILLIS));
+		assertEquals(50 * MILLIS, waitOf(limiter, now + 150 * MILLIS));
+		assertEquals(1, limiter.getQueuedCount());
+	}
+
+	@Test
+	public void waitBeyondMaxWaitIsThrottledWithoutConsuming() {
+		RateLimiter limiter = RateLimiter.Builder().permitsPerSecond(10).smooth(true).maxWaitMillis(50).build();
+		long now = System.nanoTime();
+		assertEquals(0, waitOf(limiter, now));
+		assertEquals(-1, waitOf(limiter, now));
+		assertEquals(50 * MILLIS, waitOf(limiter, now + 50 * MILLIS));
+		assertEquals(1, limiter.getPassedCount());
+		assertEquals(1, limiter.getQueuedCount());
+		assertEquals(1, limiter.getThrottledCount());
+	}
+
+	@Test
+	public void throttledLimiterDoesNotConsumeOthers() {
+		RateLimiter api = RateLimiter.Builder().permitsPerSecond(10).burst(5).build();
+		RateLimiter method = RateLimiter.Builder().permitsPerSecond(10).smooth(true).build();
+		List<RateLimiter> limiters = Arrays.asList(api, method);
+		long now = System.nanoTime();
+		assertNotNull(RateLimiter.reserve(limiters, now));
+		assertNull(RateLimiter.reserve(limiters, now));
+		assertEquals(1, api.getPassedCount());
+		assertEquals(1, api.getThrottledCount());
+		assertEquals(1, method.getThrottledCount());
+		// api still holds 4 of its burst of 5
+		for (int i = 0; i < 4; i++) {
+			assertEquals(0, waitOf(api, now));
+		}
+		assertEquals(-1, waitOf(api, now));
+	}
+
+	@Test
+	public void callWaitsForSlowestLimiter() {
+		RateLimiter api = RateLimiter.Builder().permitsPerSecond(10).smooth(true).maxWaitMillis(1000).build();
+		RateLimiter method = RateLimiter.Builder().permitsPerSecond(4).smooth(true).maxWaitMillis(1000).build();
+		List<RateLimiter> limiters = Arrays.asList(method, api);
+		long now = System.nanoTime();
+		assertEquals(0, RateLimiter.reserve(limiters, now).waitNanos);
+		assertEquals(250 * MILLIS, RateLimiter.reserve(limiters, now).waitNanos);
+		assertEquals(1, api.getQueuedCount());
+		assertEquals(1, method.getQueuedCount());
+	}
+
+	@Test
+	public void cancelledReservationIsRefunded() {
+		RateLimiter limiter = RateLimiter.Builder().permitsPerSecond(10).smooth(true).maxWaitMillis(1000).build();
+		long now = System.nanoTime();
+		waitOf(limiter, now);
+		RateLimiter.Reservation reservation = RateLimiter.reserve(Collections.singletonList(limiter), now);
+		assertEquals(100 * MILLIS, reservation.waitNanos);
+		reservation.cancel();
+		assertEquals(100 * MILLIS, waitOf(limiter, now));
+		assertEquals(1, limiter.getThrottledCount());
+		assertEquals(1, limiter.getQueuedCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void burstWithSmoothIsRejected() {
+		RateLimiter.Builder().permitsPerSecond(10).burst(5).smooth(true).build();
+	}
+
+	@Test
+	public void retryAfterSecondsPausesBucket() {
+		RateLimiter limiter = RateLimiter.Builder().permitsPerSecond(10).burst(5).maxWaitMillis(10000).build();
+		long now = System.nanoTime();
+		limiter.observe(headers("retry-after", "2"), System.currentTimeMillis(), now);
+		assertEquals(2000 * MILLIS, waitOf(limiter, now));
+	}
+
+	@Test
+	public void retryAfterHttpDatePausesBucket() {
+		RateLimiter limiter = RateLimiter.Builder().permitsPerSecond(10).maxWaitMillis(10000).build();
+		String date = "Wed, 21 Oct 2015 07:28:00 GMT";
+		long dateMillis = ZonedDateTime.parse(date, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+		long now = System.nanoTime();
+		limiter.observe(headers("Retry-After", date), dateMillis - 3000, now);
+		assertEquals(3000 * MILLIS, waitOf(limiter, now));
+	}
+
+	@Test
+	public void exhaustedRemainingPausesUntilResetDelta() {
+		RateLimiter limiter = RateLimiter.Builder().permitsPerSecond(10).maxWaitMillis(10000).build();
+		long now = System.nanoTime();
+		Map<String, Collection<String>> headers = headers("RateLimit-Remaining", "0");
+		headers.put("RateLimit-Reset", Collections.singletonList("5"));
+		limiter.observe(headers, System.currentTimeMillis(), now);
+		assertEquals(5000 * MILLIS, waitOf(limiter, now));
+	}
+
+	@Test
+	public void exhaustedRemainingPausesUntilResetEpochSeconds() {
+		RateLimiter limiter = RateLimiter.Builder().permitsPerSecond(10).maxWaitMillis(10000).build();
+		long nowMillis = 1700000000000L;
+		long now = System.nanoTime();
+		Map<String, Collection<String>> headers = headers("x-ratelimit-remaining", "0");
+		headers.put("X-RateLimit-Reset", Collections.singletonList("1700000004"));
+		limiter.observe(headers, nowMillis, now);
+		assertEquals(4000 * MILLIS, waitOf(limiter, now));
+	}
+
+	@Test
+	public void remainingQuotaDoesNotPause() {
+		RateLimiter limiter = RateLimiter.Builder().permitsPerSecond(10).build();
+		long now = System.nanoTime();
+		Map<String, Collection<String>> headers = headers("RateLimit-Remaining", "3");
+		headers.put("RateLimit-Reset", Collections.singletonList("5"));
+		headers.put(null, Collections.singletonList("HTTP/1.1 200 OK"));
+		limiter.observe(headers, System.currentTimeMillis(), now);
+		assertEquals(0, waitOf(limiter, now));
+	}
+
+	private static long waitOf(RateLimiter limiter, long nowNanos) {
+		RateLimiter.Reservation reservation = RateLimiter.reserve(Collections.singletonList(limiter), nowNanos);
+		return reservation == null ? -1 : reservation.waitNanos;
+	}
+
+	private static Map<String, Collection<String>> headers(String name, String value) {
+		Map<String, Collection<String>> headers = new HashMap<>();
+		headers.put(name, Collections.singletonList(value));
+		return headers;
+	}
+}
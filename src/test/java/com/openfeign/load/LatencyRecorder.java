@@ -0,0 +1,69 @@
+package com.openfeign.load;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects latency samples in nanoseconds and reports percentiles over all of them.
+ */
+public class LatencyRecorder {
+    private long[] samples = new long[1024];
+    private int count;
+
+    public synchronized void record(long latencyNanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        }
+        samples[count++] = latencyNanos;
+    }
+
+    /**
+     * Records the sample plus the ones a paced caller would have taken while it was blocked on this one,
+     * which corrects coordinated omission in closed-loop runs.
+     */
+    public synchronized void recordWithExpectedInterval(long latencyNanos, long expectedIntervalNanos) {
+        record(latencyNanos);
+        if (expectedIntervalNanos <= 0) {
+            return;
+        }
+        for (long missing = latencyNanos - expectedIntervalNanos; missing >= expectedIntervalNanos; missing -= expectedIntervalNanos) {
+            record(missing);
+        }
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    /**
+     * Nearest-rank percentile of the samples recorded so far, in nanoseconds.
+     */
+    public synchronized long percentile(double percentile) {
+        if (count == 0) {
+            throw new IllegalStateException("no samples");
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return percentile(sorted, percentile);
+    }
+
+    public synchronized String summary() {
+        if (count == 0) {
+            return "no samples";
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return String.format("samples=%d p50=%.3fms p90=%.3fms p99=%.3fms p99.9=%.3fms max=%.3fms",
+                count, millis(percentile(sorted, 50)), millis(percentile(sorted, 90)),
+                millis(percentile(sorted, 99)), millis(percentile(sorted, 99.9)), millis(sorted[sorted.length - 1]));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,60 @@
+package com.openfeign.load;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyRecorderTests {
+
+	@Test
+	public void percentileUsesNearestRank() {
+		LatencyRecorder recorder = new LatencyRecorder();
+		for (long i = 100; i >= 1; i--) {
+			recorder.record(i);
+		}
+		assertEquals(1, recorder.percentile(0));
+		assertEquals(50, recorder.percentile(50));
+		assertEquals(99, recorder.percentile(99));
+		assertEquals(100, recorder.percentile(99.9));
+		assertEquals(100, recorder.percentile(100));
+	}
+
+	@Test
+	public void stallBackFillsMissedSamples() {
+		LatencyRecorder recorder = new LatencyRecorder();
+		recorder.recordWithExpectedInterval(250, 100);
+		assertEquals(2, recorder.count());
+		assertEquals(150, recorder.percentile(0));
+		assertEquals(250, recorder.percentile(100));
+
+		recorder = new LatencyRecorder();
+		recorder.recordWithExpectedInterval(400, 100);
+		assertEquals(4, recorder.count());
+		assertEquals(100, recorder.percentile(0));
+		assertEquals(200, recorder.percentile(50));
+	}
+
+	@Test
+	public void callWithinIntervalIsNotBackFilled() {
+		LatencyRecorder recorder = new LatencyRecorder();
+		recorder.recordWithExpectedInterval(100, 100);
+		recorder.recordWithExpectedInterval(199, 100);
+		recorder.recordWithExpectedInterval(50, 0);
+		assertEquals(3, recorder.count());
+	}
+
+	@Test
+	public void recorderGrowsBeyondInitialCapacity() {
+		LatencyRecorder recorder = new LatencyRecorder();
+		for (long i = 1; i <= 5000; i++) {
+			recorder.record(i);
+		}
+		assertEquals(5000, recorder.count());
+		assertEquals(4950, recorder.percentile(99));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void percentileOfNoSamplesFails() {
+		new LatencyRecorder().percentile(50);
+	}
+}
@@ -0,0 +1,153 @@
+package com.openfeign.load;
+
+import com.openfeign.BaseResponse;
+import com.openfeign.ClientFactory;
+import com.openfeign.client.RecordApiClient;
+import com.openfeign.client.entities.Record;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Drives a call at a target rate and reports latency percentiles.
+ * <p>
+ * {@link Mode#OPEN_LOOP} issues calls on a fixed schedule regardless of how fast earlier ones complete and
+ * measures each from its intended start time. {@link Mode#CLOSED_LOOP} paces {@code concurrency} callers that
+ * wait for their previous call, and back-fills the samples a stalled caller failed to take. Both "corrected"
+ * figures include coordinated omission; the "service" figures only measure time spent inside the call.
+ * <p>
+ * Usage: {@code LoadGenerator <OPEN_LOOP|CLOSED_LOOP> <qps> <seconds> <concurrency> <baseUrl> [writeRatio]}
+ */
+public class LoadGenerator {
+    public enum Mode {
+        OPEN_LOOP, CLOSED_LOOP
+    }
+
+    private final Mode mode;
+    private final double targetQps;
+    private final long durationNanos;
+    private final int concurrency;
+    private final BooleanSupplier call;
+    private final LatencyRecorder corrected;
+    private final LatencyRecorder service;
+    private final AtomicLong errors;
+    private long elapsedNanos;
+
+    public LoadGenerator(Mode mode, double targetQps, long durationMillis, int concurrency, BooleanSupplier call) {
+        if (mode == null || call == null || targetQps <= 0 || durationMillis <= 0 || concurrency <= 0) {
+            throw new IllegalArgumentException("[mode:" + mode + ",targetQps:" + targetQps + ",durationMillis:"
+                    + durationMillis + ",concurrency:" + concurrency + ",call:" + call + "]");
+        }
+        this.mode = mode;
+        this.targetQps = targetQps;
+        this.durationNanos = TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        this.concurrency = concurrency;
+        this.call = call;
+        this.corrected = new LatencyRecorder();
+        this.service = new LatencyRecorder();
+        this.errors = new AtomicLong();
+    }
+
+    public void run() throws InterruptedException {
+        long start = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        if (mode == Mode.OPEN_LOOP) {
+            runOpenLoop(workers, start);
+        } else {
+            runClosedLoop(workers, start);
+        }
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+    public String report() {
+        double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        return String.format("%s target=%.1fqps achieved=%.1fqps errors=%d%ncorrected: %s%nservice:   %s",
+                mode, targetQps, service.count() / seconds, errors.get(), corrected.summary(), service.summary());
+    }
+
+    private void runOpenLoop(ExecutorService workers, long start) {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / targetQps);
+        long end = start + durationNanos;
+        for (long intended = start; intended < end; intended += intervalNanos) {
+            sleepUntil(intended);
+            long intendedStart = intended;
+            workers.execute(() -> {
+                long begin = System.nanoTime();
+                invoke();
+                long done = System.nanoTime();
+                corrected.record(done - intendedStart);
+                service.record(done - begin);
+            });
+        }
+    }
+
+    private void runClosedLoop(ExecutorService workers, long start) {
+        long intervalNanos = (long) (concurrency * TimeUnit.SECONDS.toNanos(1) / targetQps);
+        long end = start + durationNanos;
+        for (int i = 0; i < concurrency; i++) {
+            long offset = intervalNanos * i / concurrency;
+            workers.execute(() -> {
+                long next = start + offset;
+                while (next < end) {
+                    sleepUntil(next);
+                    long begin = System.nanoTime();
+                    invoke();
+                    long done = System.nanoTime();
+                    service.record(done - begin);
+                    corrected.recordWithExpectedInterval(done - begin, intervalNanos);
+                    // calls missed while stalled are accounted for above, so resume pacing instead of bursting
+                    next = Math.max(next + intervalNanos, done);
+                }
+            });
+        }
+    }
+
+    private void invoke() {
+        try {
+            if (!call.getAsBoolean()) {
+                errors.incrementAndGet();
+            }
+        } catch (RuntimeException e) {
+            errors.incrementAndGet();
+        }
+    }
+
+    private static void sleepUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Mode mode = args.length > 0 ? Mode.valueOf(args[0]) : Mode.OPEN_LOOP;
+        double qps = args.length > 1 ? Double.parseDouble(args[1]) : 100;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 30;
+        int concurrency = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+        String baseUrl = args.length > 4 ? args[4] : "http://localhost:8080";
+        double writeRatio = args.length > 5 ? Double.parseDouble(args[5]) : 0.1;
+
+        ClientFactory factory = ClientFactory.Builder().defaultBaseUrl(baseUrl).build();
+        RecordApiClient client = factory.createJsonClient(RecordApiClient.class, null);
+        Record seed = new Record();
+        seed.setUserId(1L);
+        seed.setContent("load");
+        Long seedId = client.postRecord(1L, seed).getData().getId();
+
+        LoadGenerator generator = new LoadGenerator(mode, qps, TimeUnit.SECONDS.toMillis(seconds), concurrency, () -> {
+            BaseResponse<Record, ?> response = ThreadLocalRandom.current().nextDouble() < writeRatio
+                    ? client.postRecord(1L, seed)
+                    : client.getRecord(1L, seedId);
+            return response.getStatus() < 300;
+        });
+        generator.run();
+        System.out.println(generator.report());
+    }
+}
@@ -0,0 +1,69 @@
+package com.openfeign.testserver;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LatencyDistributionTests {
+	private static final int SAMPLES = 200000;
+
+	@Test
+	public void fixedAlwaysReturnsMean() {
+		Random random = new Random(1);
+		for (int i = 0; i < 100; i++) {
+			assertEquals(20.0, LatencyDistribution.FIXED.sample(20, 1, random), 0);
+		}
+	}
+
+	@Test
+	public void uniformStaysWithinTwiceTheMean() {
+		Random random = new Random(1);
+		for (int i = 0; i < 10000; i++) {
+			double sample = LatencyDistribution.UNIFORM.sample(20, 1, random);
+			assertTrue(sample >= 0 && sample < 40);
+		}
+	}
+
+	@Test
+	public void distributionsPreserveMean() {
+		for (LatencyDistribution distribution : LatencyDistribution.values()) {
+			assertEquals(distribution.name(), 20.0, mean(distribution, 20, 0.8), 0.4);
+		}
+	}
+
+	@Test
+	public void logNormalPreservesMeanForWideSigma() {
+		assertEquals(10.0, mean(LatencyDistribution.LOG_NORMAL, 10, 0.25), 0.1);
+		assertEquals(10.0, mean(LatencyDistribution.LOG_NORMAL, 10, 1.0), 0.3);
+	}
+
+	@Test
+	public void logNormalMedianFollowsSigma() {
+		Random random = new Random(7);
+		int below = 0;
+		// median of the distribution is exp(mu) = mean * exp(-sigma^2 / 2)
+		double median = 10 * Math.exp(-0.5);
+		for (int i = 0; i < SAMPLES; i++) {
+			if (LatencyDistribution.LOG_NORMAL.sample(10, 1.0, random) < median) {
+				below++;
+			}
+		}
+		assertEquals(0.5, below / (double) SAMPLES, 0.01);
+	}
+
+	@Test
+	public void logNormalOfZeroMeanIsZero() {
+		assertEquals(0.0, LatencyDistribution.LOG_NORMAL.sample(0, 1.0, new Random(1)), 0);
+	}
+
+	private static double mean(LatencyDistribution distribution, double meanMillis, double sigma) {
+		Random random = new Random(42);
+		double sum = 0;
+		for (int i = 0; i < SAMPLES; i++) {
+			sum += distribution.sample(meanMillis, sigma, random);
+		}
+		return sum / SAMPLES;
+	}
+}
@@ -0,0 +1,96 @@
+package com.openfeign.testserver;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class PerformanceModeTests {
+	private PerformanceMode performanceMode;
+
+	@After
+	public void shutdown() {
+		if (performanceMode != null) {
+			performanceMode.shutdown();
+		}
+	}
+
+	@Test
+	public void disabledModeReturnsHandlerResponse() {
+		PerformanceProperties properties = new PerformanceProperties();
+		properties.getDefaults().setErrorRate(1);
+		properties.getDefaults().setLatencyMeanMillis(100);
+		performanceMode = new PerformanceMode(properties);
+
+		ResponseEntity<Object> expected = ResponseEntity.ok("record");
+		assertSame(expected, performanceMode.respond("getRecord", () -> expected));
+	}
+
+	@Test
+	public void errorRateOfOneReplacesHandler() {
+		PerformanceProperties properties = enabled();
+		properties.getDefaults().setErrorRate(1);
+		properties.getDefaults().setErrorStatus(503);
+		performanceMode = new PerformanceMode(properties);
+
+		AtomicBoolean called = new AtomicBoolean();
+		Object response = performanceMode.respond("getRecord", () -> {
+			called.set(true);
+			return ResponseEntity.ok("record");
+		});
+		ResponseEntity<?> entity = (ResponseEntity<?>) response;
+		assertEquals(503, entity.getStatusCodeValue());
+		assertEquals("11503", ((ErrorType) entity.getBody()).getErrorCode());
+		assertFalse(called.get());
+	}
+
+	@Test
+	public void endpointProfileOverridesDefaults() {
+		PerformanceProperties properties = enabled();
+		properties.getDefaults().setErrorRate(1);
+		properties.getEndpoints().put("getRecord", new PerformanceProperties.EndpointProfile());
+		performanceMode = new PerformanceMode(properties);
+
+		ResponseEntity<Object> expected = ResponseEntity.ok("record");
+		assertSame(expected, performanceMode.respond("getRecord", () -> expected));
+		assertEquals(400, ((ResponseEntity<?>) performanceMode.respond("deleteRecord", () -> expected)).getStatusCodeValue());
+	}
+
+	@Test
+	public void fixedLatencyCompletesFromScheduler() throws InterruptedException {
+		PerformanceProperties properties = enabled();
+		properties.getDefaults().setLatencyMeanMillis(50);
+		performanceMode = new PerformanceMode(properties);
+
+		ResponseEntity<Object> expected = ResponseEntity.ok("record");
+		AtomicReference<Thread> handlerThread = new AtomicReference<>();
+		long start = System.nanoTime();
+		Object response = performanceMode.respond("getRecord", () -> {
+			handlerThread.set(Thread.currentThread());
+			return expected;
+		});
+		assertTrue(response instanceof DeferredResult);
+		DeferredResult<?> result = (DeferredResult<?>) response;
+		assertFalse(result.hasResult());
+
+		CountDownLatch completed = new CountDownLatch(1);
+		result.setResultHandler(value -> completed.countDown());
+		assertTrue(completed.await(5, TimeUnit.SECONDS));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+		assertSame(expected, result.getResult());
+		assertNotSame(Thread.currentThread(), handlerThread.get());
+	}
+
+	private static PerformanceProperties enabled() {
+		PerformanceProperties properties = new PerformanceProperties();
+		properties.setEnabled(true);
+		return properties;
+	}
+}